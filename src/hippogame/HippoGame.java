@@ -7,43 +7,122 @@ import java.awt.event.ActionListener;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.geom.AffineTransform;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
 import java.io.IOException;
 
 class SoundPlayer {
 
-    // Method to play a sound effect from a given file
-    public static void playSound(String soundFile) {
-        try {
-            AudioInputStream audioStream = AudioSystem.getAudioInputStream(SoundPlayer.class.getResource("/" + soundFile));
+    // Number of audio lines currently held open through this class, cross-checks the mixer count
+    private static final AtomicInteger openLines = new AtomicInteger();
+
+    // Method to open a clip from a given file, keeping count of open lines
+    public static Clip loadClip(String soundFile) {
+        try (AudioInputStream audioStream = AudioSystem.getAudioInputStream(SoundPlayer.class.getResource("/" + soundFile))) {
             Clip clip = AudioSystem.getClip();
+            clip.addLineListener(event -> {
+                if (event.getType() == LineEvent.Type.CLOSE) {
+                    openLines.decrementAndGet();
+                }
+            });
             clip.open(audioStream);
-            clip.start(); 
+            openLines.incrementAndGet();
+            return clip;
         } catch (UnsupportedAudioFileException | IOException | LineUnavailableException e) {
             e.printStackTrace();
         }
+        return null;
+    }
+
+    // Method to play a sound effect from a given file, releasing the line once it finishes
+    public static void playSound(String soundFile) {
+        Clip clip = loadClip(soundFile);
+        if (clip != null) {
+            clip.addLineListener(event -> {
+                if (event.getType() == LineEvent.Type.STOP) {
+                    clip.close();
+                }
+            });
+            clip.start();
+        }
     }
 
     // Method to play background music in a loop from a given file
     public static Clip playMusic(String musicFile) {
-        try {
-            AudioInputStream audioStream = AudioSystem.getAudioInputStream(SoundPlayer.class.getResource("/" + musicFile));
-            Clip clip = AudioSystem.getClip();
-            clip.open(audioStream);
-            clip.loop(Clip.LOOP_CONTINUOUSLY);  
+        Clip clip = loadClip(musicFile);
+        if (clip != null) {
+            clip.loop(Clip.LOOP_CONTINUOUSLY);
             clip.start();
-            return clip;  
-        } catch (UnsupportedAudioFileException | IOException | LineUnavailableException e) {
-            e.printStackTrace();
         }
-        return null;
+        return clip;
+    }
+
+    // Method to release a clip returned by loadClip or playMusic
+    public static void closeClip(Clip clip) {
+        if (clip != null) {
+            clip.stop();
+            clip.close();
+        }
+    }
+
+    public static int getOpenLineCount() {
+        return openLines.get();
+    }
+
+    // Method to count every line open on any mixer, including ones not opened through this class
+    public static int getOpenMixerLineCount() {
+        int count = 0;
+        for (Mixer.Info info : AudioSystem.getMixerInfo()) {
+            count += AudioSystem.getMixer(info).getSourceLines().length;
+        }
+        return count;
+    }
+}
+
+// Creates the game's Swing timers and keeps weak references so soak runs can see how many are still around
+class GameTimers {
+    private static final List<WeakReference<Timer>> timers = new ArrayList<>();
+
+    public static synchronized Timer create(int delay, ActionListener listener) {
+        Timer timer = new Timer(delay, listener);
+        timers.add(new WeakReference<>(timer));
+        return timer;
+    }
+
+    public static synchronized int getReachableCount() {
+        timers.removeIf(ref -> ref.get() == null);
+        return timers.size();
+    }
+
+    // Running timers are held strongly by Swing's timer queue, so these are the ones that can leak
+    public static synchronized int getRunningCount() {
+        int count = 0;
+        for (WeakReference<Timer> ref : timers) {
+            Timer timer = ref.get();
+            if (timer != null && timer.isRunning()) {
+                count++;
+            }
+        }
+        return count;
     }
 }
 
 abstract class GameObject {
     protected int x, y, width, height;
+    protected double speed = 5;
+    private double fallRemainder = 0;
     protected Image image;
 
     public GameObject(int x, int y, int width, int height, Image image) {
@@ -59,7 +138,11 @@ abstract class GameObject {
     }
 
     public void updatePosition() {
-        y += 5;
+        // Carry the fractional part over so non-integer speeds fall at the right average rate
+        fallRemainder += speed;
+        int step = (int) fallRemainder;
+        fallRemainder -= step;
+        y += step;
     }
 
     public void draw(Graphics g) {
@@ -118,6 +201,21 @@ class HippoGame extends JPanel implements ActionListener {
     // Game timers
     private Timer timer;
     private Timer spawnTimer;
+    private Timer paralysisTimer;
+    private Timer rockPenaltyTimer;
+    private Timer soakTimer;
+
+    // Spawn rates and fall speed last applied by the difficulty controller
+    private final Random rand = new Random();
+    private double bombProbability;
+    private double potionProbability;
+    private double fruitProbability;
+    private double poisonProbability;
+    private double magnetProbability;
+    private double shieldProbability;
+    private double rockProbability;
+    private double fallSpeed = 5;
+    private final DifficultyController difficulty = new DifficultyController();
 
     // Game elements
     private Rectangle hippo;
@@ -232,13 +330,7 @@ class HippoGame extends JPanel implements ActionListener {
         homeImage = new ImageIcon(getClass().getResource("/images/home.jpg")).getImage();  
 
         // Load background music
-        try {
-            AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(getClass().getResource("/sounds/background_music.wav"));
-            backgroundMusicClip = AudioSystem.getClip();
-            backgroundMusicClip.open(audioInputStream);
-        } catch (UnsupportedAudioFileException | IOException | LineUnavailableException e) {
-            e.printStackTrace();
-        }
+        backgroundMusicClip = SoundPlayer.loadClip("sounds/background_music.wav");
 
         showHomeScreen();
     }
@@ -301,9 +393,8 @@ class HippoGame extends JPanel implements ActionListener {
         removeAll();
         repaint();
         currentBackgroundLevel = 0;
-        if (backgroundMusicClip != null) {
-            backgroundMusicClip.stop();
-        }
+        difficulty.reset();
+        SoundPlayer.closeClip(backgroundMusicClip);
         backgroundMusicClip = SoundPlayer.playMusic("sounds/background_music.wav");
 
         // Initialize the hippo character
@@ -322,126 +413,91 @@ class HippoGame extends JPanel implements ActionListener {
         shieldActive = false;
         rockPenaltyActive = false;
         hippoHealth = 100;
-        if (newGameButton != null) {
-            remove(newGameButton);
-            newGameButton = null;
+
+        // Penalties from the previous game must not wear off in this one
+        if (paralysisTimer != null) {
+            paralysisTimer.stop();
+        }
+        if (rockPenaltyTimer != null) {
+            rockPenaltyTimer.stop();
         }
 
         // Start the game timer
-        timer = new Timer(30, this);
-        timer.start();
+        if (timer == null) {
+            timer = GameTimers.create(30, this);
+        }
+        timer.restart();
         startSpawnTimer();
     }
 
     // Method to start the spawn timer for game objects (e.g., fruits, bombs)
     private void startSpawnTimer() {
-        if (spawnTimer != null) {
-            spawnTimer.stop();
-        }
-
-        Random rand = new Random();
-        int level = currentBackgroundLevel;
-        int spawnDelay;
-        double bombProbability;
-        double potionProbability;
-        double fruitProbability;
-        double poisonProbability;
-        double magnetProbability;
-        double shieldProbability;
-        double rockProbability;
-
-        // Set spawn rates based on the current game level
-        switch (level) {
-            case 0:
-                spawnDelay = 800;
-                bombProbability = 0.1;
-                potionProbability = 0.1;
-                fruitProbability = 0.6;
-                poisonProbability = 0.0;
-                magnetProbability = 0.1;
-                shieldProbability = 0.1;
-                rockProbability = 0.0;
-                break;
-            case 1:
-                spawnDelay = 800;
-                bombProbability = 0.1;
-                potionProbability = 0.1;
-                fruitProbability = 0.4;
-                poisonProbability = 0.2;
-                magnetProbability = 0.1;
-                shieldProbability = 0.1;
-                rockProbability = 0.0;
-                break;
-            case 2:
-                spawnDelay = 600;
-                 bombProbability = 0.2;
-                potionProbability = 0.1;
-                fruitProbability = 0.2;
-                poisonProbability = 0.15;
-                magnetProbability = 0.0;
-                shieldProbability = 0.1;
-                rockProbability = 0.15;
-                break;
-            case 3:
-                spawnDelay = 300;
-                bombProbability = 0.25;
-                potionProbability = 0.025;
-                fruitProbability = 0.2;
-                poisonProbability = 0.2;
-                magnetProbability = 0.0;
-                shieldProbability = 0.025;
-                rockProbability = 0.2;
-                break;
-            case 4:
-                spawnDelay = 200;
-                bombProbability = 0.3;
-                potionProbability = 0.0;
-                fruitProbability = 0.2;
-                poisonProbability = 0.2;
-                magnetProbability = 0.0;
-                shieldProbability = 0.0;
-                rockProbability = 0.2;
-                break;
-            default:
-                spawnDelay = 1000;
-                bombProbability = 0.0;
-                potionProbability = 0.1;
-                fruitProbability = 0.5;
-                poisonProbability = 0.1;
-                magnetProbability = 0.05;
-                shieldProbability = 0.05;
-                rockProbability = 0.25;
-        }
-
-        // Timer to spawn game objects periodically
-        spawnTimer = new Timer(spawnDelay, e -> {
-            if (!gameOver && !gameCleared) {
-                int x = rand.nextInt(screenWidth - 100);
-                int y = 0;
-                int width = 60;
-                int height = 60;
-                double randValue = rand.nextDouble();
-
-                // Determine which object to spawn based on probability
-                if (randValue < fruitProbability) {
-                    int fruitIndex = rand.nextInt(5);
-                    objects.add(new Fruit(x, y, width, height, fruitImages[fruitIndex]));
-                } else if (randValue < fruitProbability + bombProbability) {
-                    objects.add(new Bomb(x, y, width, height, bombImage));
-                } else if (randValue < fruitProbability + bombProbability + potionProbability) {
-                    objects.add(new Potion(x, y, width, height, healImage));
-                } else if (randValue < fruitProbability + bombProbability + potionProbability + poisonProbability) {
-                    objects.add(new Poison(x, y, width, height, poisonImage));
-                } else if (randValue < fruitProbability + bombProbability + potionProbability + poisonProbability + magnetProbability) {
-                    objects.add(new Magnet(x, y, width, height, magnetImage));
-                } else if (randValue < fruitProbability + bombProbability + potionProbability + poisonProbability + magnetProbability + shieldProbability) {
-                    objects.add(new Shield(x, y, width, height, shieldImage));
-                } else if (randValue < fruitProbability + bombProbability + potionProbability + poisonProbability + magnetProbability + shieldProbability + rockProbability) {
-                    objects.add(new Rock(x, y, width, height, rockImage));
-                }
+        DifficultySettings settings = difficulty.getSettings();
+        applyDifficulty(settings);
+        spawnTimer.setInitialDelay(settings.spawnDelay);
+        spawnTimer.restart();
+        difficulty.start(this::applyDifficulty);
+    }
+
+    // Method to take over the spawn rates picked by the difficulty controller
+    private void applyDifficulty(DifficultySettings settings) {
+        fruitProbability = settings.weights[DifficultySettings.FRUIT];
+        bombProbability = settings.weights[DifficultySettings.BOMB];
+        potionProbability = settings.weights[DifficultySettings.POTION];
+        poisonProbability = settings.weights[DifficultySettings.POISON];
+        magnetProbability = settings.weights[DifficultySettings.MAGNET];
+        shieldProbability = settings.weights[DifficultySettings.SHIELD];
+        rockProbability = settings.weights[DifficultySettings.ROCK];
+        fallSpeed = settings.fallSpeed;
+
+        // Timer to spawn game objects periodically, a new delay takes effect from the next spawn
+        if (spawnTimer == null) {
+            spawnTimer = GameTimers.create(settings.spawnDelay, e -> spawnObject());
+        }
+        spawnTimer.setDelay(settings.spawnDelay);
+    }
+
+    // Method to spawn one game object using the current spawn rates
+    private void spawnObject() {
+        if (!gameOver && !gameCleared) {
+            int x = rand.nextInt(screenWidth - 100);
+            int y = 0;
+            int width = 60;
+            int height = 60;
+            double randValue = rand.nextDouble();
+            GameObject spawned = null;
+
+            // Determine which object to spawn based on probability
+            if (randValue < fruitProbability) {
+                int fruitIndex = rand.nextInt(5);
+                spawned = new Fruit(x, y, width, height, fruitImages[fruitIndex]);
+            } else if (randValue < fruitProbability + bombProbability) {
+                spawned = new Bomb(x, y, width, height, bombImage);
+            } else if (randValue < fruitProbability + bombProbability + potionProbability) {
+                spawned = new Potion(x, y, width, height, healImage);
+            } else if (randValue < fruitProbability + bombProbability + potionProbability + poisonProbability) {
+                spawned = new Poison(x, y, width, height, poisonImage);
+            } else if (randValue < fruitProbability + bombProbability + potionProbability + poisonProbability + magnetProbability) {
+                spawned = new Magnet(x, y, width, height, magnetImage);
+            } else if (randValue < fruitProbability + bombProbability + potionProbability + poisonProbability + magnetProbability + shieldProbability) {
+                spawned = new Shield(x, y, width, height, shieldImage);
+            } else if (randValue < fruitProbability + bombProbability + potionProbability + poisonProbability + magnetProbability + shieldProbability + rockProbability) {
+                spawned = new Rock(x, y, width, height, rockImage);
             }
-        });
-        spawnTimer.start();
+
+            if (spawned != null) {
+                spawned.speed = fallSpeed;
+                objects.add(spawned);
+            }
+        }
+    }
+
+    // Paint time counts against the frame budget the difficulty controller watches
+    @Override
+    public void paint(Graphics g) {
+        long paintStart = System.nanoTime();
+        super.paint(g);
+        difficulty.recordWork(System.nanoTime() - paintStart);
     }
 
     // Method to paint all game components on the screen
@@ -466,7 +522,7 @@ class HippoGame extends JPanel implements ActionListener {
             g.drawString("Game Over", screenWidth / 2 - 100, screenHeight / 2);
             g.drawString("Score: " + score, screenWidth / 2 - 100, screenHeight / 2 + 50);
 
-            if (newGameButton == null) {
+            if (newGameButton == null || newGameButton.getParent() != this) {
                 createNewGameButton();
             }
             return;
@@ -494,7 +550,7 @@ class HippoGame extends JPanel implements ActionListener {
     g.drawString("Congrats! You cleared the game!", screenWidth / 2 - 200, screenHeight / 2);
     g.drawString("Score: " + score, screenWidth / 2 - 100, screenHeight / 2 + 50);
 
-    if (newGameButton == null) {
+    if (newGameButton == null || newGameButton.getParent() != this) {
         createNewGameButton();
     }
     return;
@@ -553,18 +609,65 @@ class HippoGame extends JPanel implements ActionListener {
     }
 
     private void createNewGameButton() {
-        newGameButton = new JButton("New Game");
-        newGameButton.setFont(new Font("Arial", Font.BOLD, 24));
-        newGameButton.setBounds(screenWidth / 2 - 100, screenHeight / 2 + 100, 200, 50);
-        newGameButton.addActionListener(e -> startGame());
+        if (newGameButton == null) {
+            newGameButton = new JButton("New Game");
+            newGameButton.setFont(new Font("Arial", Font.BOLD, 24));
+            newGameButton.setBounds(screenWidth / 2 - 100, screenHeight / 2 + 100, 200, 50);
+            newGameButton.addActionListener(e -> startGame());
+        }
         setLayout(null);
         add(newGameButton);
         repaint();
     }
 
+    // Method to let the game play itself back to back, used by soak test mode
+    void startAutoPlay() {
+        if (soakTimer == null) {
+            soakTimer = GameTimers.create(30, e -> autoPlayStep());
+        }
+        soakTimer.start();
+    }
+
+    private void autoPlayStep() {
+        if (showHomeScreen) {
+            startButton.doClick();
+        } else if (gameOver || gameCleared) {
+            if (newGameButton != null && newGameButton.getParent() == this) {
+                newGameButton.doClick();
+            }
+        } else if (hippo != null && !poisoned) {
+            // Walk towards the lowest fruit or potion still above the hippo
+            GameObject target = null;
+            for (GameObject obj : objects) {
+                if ((obj instanceof Fruit || obj instanceof Potion) && obj.y < hippo.y + hippo.height
+                        && (target == null || obj.y > target.y)) {
+                    target = obj;
+                }
+            }
+            if (target == null) {
+                hippoState = "idle";
+                return;
+            }
+            int moveDistance = rockPenaltyActive ? 4 : 40;
+            int targetX = target.x + target.width / 2 - hippo.width / 2;
+            if (targetX < hippo.x - moveDistance / 2 && hippo.x > 0) {
+                hippo.x -= moveDistance;
+                hippoState = "walking";
+                isFlipped = true;
+            } else if (targetX > hippo.x + moveDistance / 2 && hippo.x < getWidth() - hippo.width) {
+                hippo.x += moveDistance;
+                hippoState = "walking";
+                isFlipped = false;
+            } else {
+                hippoState = "idle";
+            }
+        }
+    }
+
     private void gameCleared() {
         gameCleared = true;
         timer.stop();
+        difficulty.gameEnded();
         if (backgroundMusicClip != null) {
             backgroundMusicClip.stop();
         }
@@ -576,6 +679,7 @@ class HippoGame extends JPanel implements ActionListener {
         if (gameOver || gameCleared) {
             return;
         }
+        long tickStart = System.nanoTime();
 
         Iterator<GameObject> objectIterator = objects.iterator();
         while (objectIterator.hasNext()) {
@@ -583,10 +687,14 @@ class HippoGame extends JPanel implements ActionListener {
             obj.updatePosition();
 
             if (obj.y > screenHeight) {
+                if (obj instanceof Fruit) {
+                    difficulty.recordFruitMissed();
+                }
                 objectIterator.remove();
             } else if (hippo != null && obj.getBounds().intersects(hippo)) {
                 if (obj instanceof Fruit) {
                     score++;
+                    difficulty.recordFruitCaught(score);
                     if (score == 20) {
                         currentBackgroundLevel = 1;
                     } else if (score == 40) {
@@ -599,7 +707,6 @@ class HippoGame extends JPanel implements ActionListener {
                         gameCleared();
                         return;
                     }
-                    startSpawnTimer();
                     hippoState = "openMouth";
                     objectIterator.remove();
                     SoundPlayer.playSound("sounds/catch_fruit.wav");
@@ -614,6 +721,7 @@ class HippoGame extends JPanel implements ActionListener {
                         if (hippoHealth <= 0) {
                             gameOver = true;
                             timer.stop();
+                            difficulty.gameEnded();
                             if (backgroundMusicClip != null) {
                                 backgroundMusicClip.stop();
                             }
@@ -631,12 +739,14 @@ class HippoGame extends JPanel implements ActionListener {
                     hippoState = "paralyzed";
                     SoundPlayer.playSound("sounds/poison.wav");
                     objectIterator.remove();
-                    Timer paralysisTimer = new Timer(1500, event -> {
-                        hippoState = "idle";
-                        poisoned = false;
-                    });
-                    paralysisTimer.setRepeats(false);
-                    paralysisTimer.start();
+                    if (paralysisTimer == null) {
+                        paralysisTimer = GameTimers.create(1500, event -> {
+                            hippoState = "idle";
+                            poisoned = false;
+                        });
+                        paralysisTimer.setRepeats(false);
+                    }
+                    paralysisTimer.restart();
                 } else if (obj instanceof Magnet) {
                     magnetActive = true;
                     SoundPlayer.playSound("sounds/magnet.wav");
@@ -656,13 +766,16 @@ class HippoGame extends JPanel implements ActionListener {
                     rockPenaltyActive = true;
                     SoundPlayer.playSound("sounds/rock.wav");
                     objectIterator.remove();
-                    Timer rockPenaltyTimer = new Timer(3000, event -> rockPenaltyActive = false);
-                    rockPenaltyTimer.setRepeats(false);
-                    rockPenaltyTimer.start();
+                    if (rockPenaltyTimer == null) {
+                        rockPenaltyTimer = GameTimers.create(3000, event -> rockPenaltyActive = false);
+                        rockPenaltyTimer.setRepeats(false);
+                    }
+                    rockPenaltyTimer.restart();
                 }
             }
         }
 
+        difficulty.recordTick(System.nanoTime() - tickStart, hippoHealth);
         repaint();
     }
 
@@ -679,5 +792,402 @@ class HippoGame extends JPanel implements ActionListener {
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 
         frame.setVisible(true);
+
+        // Soak test mode: java hippogame.HippoGame --soak [hours] [sampleSeconds]
+        if (args.length > 0 && args[0].equals("--soak")) {
+            double hours = args.length > 1 ? Double.parseDouble(args[1]) : 12;
+            int sampleSeconds = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+            int totalSamples = sampleSeconds > 0 ? (int) (hours * 3600 / sampleSeconds) : 0;
+            if (totalSamples < SoakMonitor.MIN_SAMPLES) {
+                System.err.println("Soak of " + hours + "h sampled every " + sampleSeconds + "s gives " + totalSamples
+                        + " samples, at least " + SoakMonitor.MIN_SAMPLES + " are needed");
+                System.exit(2);
+            }
+            game.startAutoPlay();
+            new SoakMonitor(frame, totalSamples, sampleSeconds).start();
+        }
+    }
+}
+
+// Samples resource usage during an unattended soak run and fails with a report when any of it keeps growing
+class SoakMonitor {
+    private static final String[] METRICS = {"audio lines", "game clips", "timers", "running timers", "buttons", "components", "heap KB"};
+    private static final int WINDOWS = 4;
+    public static final int MIN_SAMPLES = WINDOWS * 2;
+
+    private final JFrame frame;
+    private final int totalSamples;
+    private final int windowSize;
+    private final Timer sampleTimer;
+    private int sampleCount = 0;
+
+    // Only fixed-size summaries are kept so the monitor does not add to the heap it is measuring
+    private final long[][] floors = new long[WINDOWS][METRICS.length];
+    private final long[] first = new long[METRICS.length];
+    private final long[] last = new long[METRICS.length];
+    private final long[] min = new long[METRICS.length];
+    private final long[] max = new long[METRICS.length];
+
+    public SoakMonitor(JFrame frame, int totalSamples, int sampleSeconds) {
+        this.frame = frame;
+        this.totalSamples = totalSamples;
+        this.windowSize = totalSamples / WINDOWS;
+        this.sampleTimer = GameTimers.create(sampleSeconds * 1000, e -> sample());
+        for (long[] window : floors) {
+            Arrays.fill(window, Long.MAX_VALUE);
+        }
+        Arrays.fill(min, Long.MAX_VALUE);
+        Arrays.fill(max, Long.MIN_VALUE);
+    }
+
+    public void start() {
+        sampleTimer.start();
+    }
+
+    private void sample() {
+        long[] values = measure();
+        int window = Math.min(sampleCount / windowSize, WINDOWS - 1);
+        sampleCount++;
+        StringBuilder line = new StringBuilder("soak sample " + sampleCount + "/" + totalSamples + ":");
+        for (int i = 0; i < METRICS.length; i++) {
+            if (sampleCount == 1) {
+                first[i] = values[i];
+            }
+            last[i] = values[i];
+            min[i] = Math.min(min[i], values[i]);
+            max[i] = Math.max(max[i], values[i]);
+            floors[window][i] = Math.min(floors[window][i], values[i]);
+            line.append(' ').append(METRICS[i]).append('=').append(values[i]);
+        }
+        System.out.println(line);
+
+        if (sampleCount >= totalSamples) {
+            sampleTimer.stop();
+            System.exit(report() ? 0 : 1);
+        }
+    }
+
+    // Method to take one sample; runs a GC first so tracked timers and heap reflect what is really retained
+    private long[] measure() {
+        System.gc();
+        System.gc();
+        long heapKb = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() / 1024;
+        Container root = frame.getContentPane();
+        return new long[] {
+            SoundPlayer.getOpenMixerLineCount(),
+            SoundPlayer.getOpenLineCount(),
+            GameTimers.getReachableCount(),
+            GameTimers.getRunningCount(),
+            countComponents(root, JButton.class),
+            countComponents(root, Component.class),
+            heapKb
+        };
+    }
+
+    private static int countComponents(Container container, Class<?> type) {
+        int count = 0;
+        for (Component child : container.getComponents()) {
+            if (type.isInstance(child)) {
+                count++;
+            }
+            if (child instanceof Container) {
+                count += countComponents((Container) child, type);
+            }
+        }
+        return count;
+    }
+
+    // Method to print the soak report, returns false if any metric grew without bound
+    private boolean report() {
+        boolean passed = true;
+        System.out.println("=== Soak report: " + sampleCount + " samples ===");
+        for (int i = 0; i < METRICS.length; i++) {
+            // Heap is allowed some slack for caches warming up; counts must stay flat
+            long tolerance = METRICS[i].equals("heap KB") ? first[i] / 10 + 1024 : 0;
+            boolean leaking = keepsGrowing(i, tolerance);
+            passed &= !leaking;
+            System.out.println(METRICS[i] + ": first=" + first[i] + " min=" + min[i] + " max=" + max[i] + " last=" + last[i]
+                    + (leaking ? "  LEAK" : "  ok"));
+        }
+        System.out.println(passed ? "Soak PASSED" : "Soak FAILED");
+        return passed;
+    }
+
+    // A metric keeps growing when its window floors never go back down and the last sits above the first.
+    // Comparing minimums ignores spikes from games in progress and only catches what is never released,
+    // including leaks that only step up now and then.
+    private boolean keepsGrowing(int metric, long tolerance) {
+        for (int w = 1; w < WINDOWS; w++) {
+            if (floors[w][metric] < floors[w - 1][metric]) {
+                return false;
+            }
+        }
+        return floors[WINDOWS - 1][metric] - floors[0][metric] > tolerance;
+    }
+}
+
+// Spawn settings picked by the difficulty controller
+class DifficultySettings {
+    // Indexes into weights, in the order spawnObject checks them
+    public static final int FRUIT = 0;
+    public static final int BOMB = 1;
+    public static final int POTION = 2;
+    public static final int POISON = 3;
+    public static final int MAGNET = 4;
+    public static final int SHIELD = 5;
+    public static final int ROCK = 6;
+    public static final int TYPES = 7;
+
+    public final int spawnDelay;
+    public final double fallSpeed;
+    public final double[] weights;
+
+    public DifficultySettings(int spawnDelay, double fallSpeed, double[] weights) {
+        this.spawnDelay = spawnDelay;
+        this.fallSpeed = fallSpeed;
+        this.weights = weights;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("delay=%dms speed=%.2f fruit=%.3f bomb=%.3f potion=%.3f poison=%.3f magnet=%.3f shield=%.3f rock=%.3f",
+                spawnDelay, fallSpeed, weights[FRUIT], weights[BOMB], weights[POTION], weights[POISON],
+                weights[MAGNET], weights[SHIELD], weights[ROCK]);
+    }
+}
+
+// Tunes spawn delay, object weights and fall speed from how the player is doing and how much of the frame is left
+class DifficultyController {
+    // The old per-level rows: spawn delay, then fruit, bomb, potion, poison, magnet, shield, rock
+    private static final double[][] LEVEL_ROWS = {
+        {800, 0.6, 0.1, 0.1, 0.0, 0.1, 0.1, 0.0},
+        {800, 0.4, 0.1, 0.1, 0.2, 0.1, 0.1, 0.0},
+        {600, 0.2, 0.2, 0.1, 0.15, 0.0, 0.1, 0.15},
+        {300, 0.2, 0.25, 0.025, 0.2, 0.0, 0.025, 0.2},
+        {200, 0.2, 0.3, 0.0, 0.2, 0.0, 0.0, 0.2}
+    };
+    private static final int POINTS_PER_LEVEL = 20;
+    private static final double TARGET_CATCH_RATE = 0.6;
+    private static final double MIN_PRESSURE = 0.7;
+    private static final double MAX_PRESSURE = 1.3;
+    private static final double BASE_FALL_SPEED = 5;
+    // The old level 4 rate is already as fast as slow machines can draw, and past the slowest level the game stalls
+    private static final int MIN_SPAWN_DELAY = 200;
+    private static final int MAX_SPAWN_DELAY = 1200;
+    private static final long FRAME_BUDGET_NANOS = 30_000_000L;
+    private static final double MAX_FRAME_LOAD = 0.75;
+    private static final double MAX_LOAD_STRETCH = 2.0;
+    private static final long DECISION_PERIOD_MS = 1000;
+    private static final long DECISION_BUDGET_NANOS = 2_000_000L;
+    private static final Logger LOG = Logger.getLogger(DifficultyController.class.getName());
+
+    // Telemetry, written on the event dispatch thread and drained by the controller thread
+    private final AtomicInteger fruitsCaught = new AtomicInteger();
+    private final AtomicInteger fruitsMissed = new AtomicInteger();
+    private final AtomicLong workNanos = new AtomicLong();
+    private final AtomicInteger ticks = new AtomicInteger();
+    private volatile int score = 0;
+    private volatile int health = 100;
+    private volatile boolean running = false;
+
+    // Controller state, guarded by this
+    private double pressure = 1.0;
+    private double catchRate = TARGET_CATCH_RATE;
+    private double healthTrend = 0;
+    private double frameLoad = 0;
+    private int lastHealth = 100;
+    private int skippedDecisions = 0;
+    private long gameStart = System.nanoTime();
+
+    // Totals over the current game's decisions for the summary logged when it ends
+    private int decisions = 0;
+    private int overBudgetDecisions = 0;
+    private double minPressure = 1.0;
+    private double maxPressure = 1.0;
+    private int minSpawnDelay = Integer.MAX_VALUE;
+    private int maxSpawnDelay = 0;
+    private ScheduledExecutorService executor;
+
+    private volatile DifficultySettings settings = compute(0, 1.0, 0);
+
+    public DifficultySettings getSettings() {
+        return settings;
+    }
+
+    // Method to start deciding in the background, new settings are handed to the listener on the event dispatch thread
+    public synchronized void start(Consumer<DifficultySettings> listener) {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "difficulty-controller");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(() -> decide(listener), DECISION_PERIOD_MS, DECISION_PERIOD_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // Method to forget the previous game and start deciding for a new one;
+    // frame load is kept since it describes the machine, not the player
+    public synchronized void reset() {
+        fruitsCaught.set(0);
+        fruitsMissed.set(0);
+        workNanos.set(0);
+        ticks.set(0);
+        score = 0;
+        health = 100;
+        pressure = 1.0;
+        catchRate = TARGET_CATCH_RATE;
+        healthTrend = 0;
+        lastHealth = 100;
+        gameStart = System.nanoTime();
+        skippedDecisions = 0;
+        decisions = 0;
+        overBudgetDecisions = 0;
+        minPressure = pressure;
+        maxPressure = pressure;
+        minSpawnDelay = Integer.MAX_VALUE;
+        maxSpawnDelay = 0;
+        settings = compute(0, pressure, frameLoad);
+        running = true;
+    }
+
+    // Method to stop deciding once the game is over and log a summary of what was decided
+    public synchronized void gameEnded() {
+        running = false;
+        LOG.info(String.format("Game ended after %d decisions, %d over budget, pressure %.2f-%.2f (final %.2f), spawn delay %d-%dms",
+                decisions, overBudgetDecisions, minPressure, maxPressure, pressure,
+                decisions > 0 ? minSpawnDelay : settings.spawnDelay, decisions > 0 ? maxSpawnDelay : settings.spawnDelay));
+    }
+
+    public void recordFruitCaught(int score) {
+        fruitsCaught.incrementAndGet();
+        this.score = score;
+    }
+
+    public void recordFruitMissed() {
+        fruitsMissed.incrementAndGet();
+    }
+
+    public void recordWork(long nanos) {
+        workNanos.addAndGet(nanos);
+    }
+
+    public void recordTick(long nanos, int health) {
+        workNanos.addAndGet(nanos);
+        ticks.incrementAndGet();
+        this.health = health;
+    }
+
+    private synchronized void decide(Consumer<DifficultySettings> listener) {
+        if (!running) {
+            return;
+        }
+        // A decision that overran its budget gives up the following turns, keeping the average cost in budget
+        if (skippedDecisions > 0) {
+            skippedDecisions--;
+            return;
+        }
+        long decisionStart = System.nanoTime();
+
+        int caught = fruitsCaught.getAndSet(0);
+        int missed = fruitsMissed.getAndSet(0);
+        long work = workNanos.getAndSet(0);
+        int tickCount = ticks.getAndSet(0);
+        int currentHealth = health;
+
+        boolean sawFruit = caught + missed > 0;
+        if (sawFruit) {
+            catchRate = 0.7 * catchRate + 0.3 * caught / (caught + missed);
+        }
+        healthTrend = 0.7 * healthTrend + 0.3 * (currentHealth - lastHealth);
+        lastHealth = currentHealth;
+        if (tickCount > 0) {
+            frameLoad = 0.7 * frameLoad + 0.3 * work / tickCount / FRAME_BUDGET_NANOS;
+        }
+
+        // Push harder while the player catches more than the target and holds on to health, ease off when they struggle.
+        // The catch rate only counts in periods that saw fruit, otherwise a stale rate would keep pushing pressure.
+        if (sawFruit) {
+            pressure += 0.1 * (catchRate - TARGET_CATCH_RATE);
+        }
+        pressure += 0.005 * healthTrend;
+        pressure = Math.max(MIN_PRESSURE, Math.min(MAX_PRESSURE, pressure));
+
+        DifficultySettings next = compute(score, pressure, frameLoad);
+        settings = next;
+
+        long elapsed = System.nanoTime() - decisionStart;
+        skippedDecisions = (int) (elapsed / DECISION_BUDGET_NANOS);
+        decisions++;
+        if (skippedDecisions > 0) {
+            overBudgetDecisions++;
+        }
+        minPressure = Math.min(minPressure, pressure);
+        maxPressure = Math.max(maxPressure, pressure);
+        minSpawnDelay = Math.min(minSpawnDelay, next.spawnDelay);
+        maxSpawnDelay = Math.max(maxSpawnDelay, next.spawnDelay);
+        LOG.info(String.format("%7.1fs score=%d catch=%.2f health=%+.1f load=%.2f pressure=%.2f -> %s%s",
+                (decisionStart - gameStart) / 1e9, score, catchRate, healthTrend, frameLoad, pressure, next,
+                skippedDecisions > 0 ? " (over budget, skipping " + skippedDecisions + ")" : ""));
+
+        // Settings replaced by a reset before this runs are dropped
+        SwingUtilities.invokeLater(() -> {
+            if (settings == next) {
+                listener.accept(next);
+            }
+        });
+    }
+
+    static DifficultySettings compute(int score, double pressure, double frameLoad) {
+        // Blend the level rows around the current score so difficulty rises smoothly instead of in steps
+        double position = Math.min((double) score / POINTS_PER_LEVEL, LEVEL_ROWS.length - 1);
+        int lower = (int) position;
+        int upper = Math.min(lower + 1, LEVEL_ROWS.length - 1);
+        double blend = position - lower;
+        double[] row = new double[LEVEL_ROWS[0].length];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = LEVEL_ROWS[lower][i] * (1 - blend) + LEVEL_ROWS[upper][i] * blend;
+        }
+
+        // Hazards scale with pressure and helpers against it, then they are scaled back to their share of the row.
+        // Fruit keeps its row weight so pressure never changes how much fruit there is to catch.
+        double[] weights = new double[DifficultySettings.TYPES];
+        double rowTotal = 0;
+        double total = 0;
+        for (int type = 0; type < DifficultySettings.TYPES; type++) {
+            double base = row[type + 1];
+            switch (type) {
+                case DifficultySettings.BOMB:
+                case DifficultySettings.POISON:
+                case DifficultySettings.ROCK:
+                    weights[type] = base * pressure;
+                    break;
+                case DifficultySettings.POTION:
+                case DifficultySettings.MAGNET:
+                case DifficultySettings.SHIELD:
+                    weights[type] = base / pressure;
+                    break;
+                default:
+                    weights[type] = base;
+                    continue;
+            }
+            rowTotal += base;
+            total += weights[type];
+        }
+        for (int type = 0; type < DifficultySettings.TYPES; type++) {
+            if (type != DifficultySettings.FRUIT && total > 0) {
+                weights[type] *= rowTotal / total;
+            }
+        }
+
+        // Spawning less is what sheds frame time, so slow down once updates and painting eat most of the tick
+        double spawnDelay = row[0] / pressure;
+        if (frameLoad > MAX_FRAME_LOAD) {
+            spawnDelay *= Math.min(frameLoad / MAX_FRAME_LOAD, MAX_LOAD_STRETCH);
+        }
+        int delay = (int) Math.round(Math.max(MIN_SPAWN_DELAY, Math.min(MAX_SPAWN_DELAY, spawnDelay)));
+        return new DifficultySettings(delay, BASE_FALL_SPEED * pressure, weights);
     }
 }